@@ -0,0 +1,13 @@
+package handler;
+
+/**
+ * PurchaseRejectedException class is used to throw purchase admission rejection exception.
+ * Internally it extends VendingMachineException
+ *
+ * @author Vigneshkumar
+ */
+public class PurchaseRejectedException extends VendingMachineException {
+    public PurchaseRejectedException(String exMsg) {
+        super(exMsg);
+    }
+}
@@ -0,0 +1,193 @@
+package impl;
+
+import handler.ConsumerOperationException;
+import handler.PurchaseRejectedException;
+import handler.VendingMachineSetupException;
+import service.ConsumerOperationInterface;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * PurchaseAdmissionController class sits in front of the vending machine and decides
+ * which purchase requests are allowed to reach it during a burst
+ * <p>
+ * Each slot keeps a bounded count of outstanding purchases. A request is rejected up front
+ * when the slot is unknown or no coins are inserted, when the slot is sold out, when the outstanding
+ * demand already covers the remaining stock, when the slot or machine queue is full, or when the
+ * machine wide token bucket is empty. Admitted requests are served one at a time in arrival order,
+ * so an admitted request waits behind at most {@code machineQueueCapacity - 1} others.
+ * <p>
+ * While a purchase of a slot is inside the vending machine, its stock may already be reduced before
+ * the purchase returns. The demand check therefore uses the stock the slot had when that purchase
+ * entered the machine, until its reservation is released, so a finished sale is never counted twice.
+ *
+ * @author Vigneshkumar
+ */
+public class PurchaseAdmissionController implements ConsumerOperationInterface {
+
+    private final VendingMachine vendingMachine;
+    private final TokenBucket tokenBucket;
+    private final int slotQueueCapacity;
+    private final int machineQueueCapacity;
+    private final Map<Integer, SlotDemand> slotDemandMap;
+    private final AtomicInteger machinePendingDemand;
+    private final ReentrantLock purchaseLock;
+
+    /**
+     * Constructor which initialize the per slot queues for the given vending machine
+     *
+     * @param vendingMachine       the vending machine which serves the admitted purchases
+     * @param slotQueueCapacity    maximum number of outstanding purchases allowed per slot
+     * @param machineQueueCapacity maximum number of outstanding purchases allowed across all slots
+     * @param tokenBucket          rate limit applied to all purchases of the vending machine
+     */
+    public PurchaseAdmissionController(VendingMachine vendingMachine, int slotQueueCapacity,
+                                       int machineQueueCapacity, TokenBucket tokenBucket) {
+        if (vendingMachine == null)
+            throw new VendingMachineSetupException("Vending machine not defined");
+        if (slotQueueCapacity <= 0)
+            throw new VendingMachineSetupException("Slot queue capacity not defined");
+        if (machineQueueCapacity <= 0)
+            throw new VendingMachineSetupException("Machine queue capacity not defined");
+        if (tokenBucket == null)
+            throw new VendingMachineSetupException("Token bucket not defined");
+
+        this.vendingMachine = vendingMachine;
+        this.tokenBucket = tokenBucket;
+        this.slotQueueCapacity = slotQueueCapacity;
+        this.machineQueueCapacity = machineQueueCapacity;
+        this.machinePendingDemand = new AtomicInteger();
+        this.purchaseLock = new ReentrantLock(true);
+        slotDemandMap = new ConcurrentHashMap<>();
+        for (int slotNo = 1; slotNo <= vendingMachine.getSlotCount(); slotNo++) {
+            slotDemandMap.put(slotNo, new SlotDemand());
+        }
+    }
+
+    @Override
+    public double getProductPrice(int slotNo) throws IllegalStateException {
+        return vendingMachine.getProductPrice(slotNo);
+    }
+
+    /**
+     * Overridden method to buy product only when the request is admitted for the chosen slot
+     *
+     * @param slotNo     an unique identification which represents a slot location
+     *                   from where the product need to be picked
+     * @param inputCoins collection of coins inserted by the user
+     */
+    @Override
+    public String buyProduct(int slotNo, List<Double> inputCoins) throws Exception {
+        SlotDemand slotDemand = slotDemandMap.get(slotNo);
+        if (slotDemand == null)
+            throw new ConsumerOperationException("Slot not available");
+        if (inputCoins == null || inputCoins.size() == 0)
+            throw new ConsumerOperationException("No coins inserted for purchase");
+
+        admitToSlot(slotNo, slotDemand);
+        try {
+            admitToMachine();
+        } catch (PurchaseRejectedException e) {
+            slotDemand.release();
+            throw e;
+        }
+        try {
+            if (!tokenBucket.tryAcquire()) {
+                slotDemand.release();
+                throw new PurchaseRejectedException("Purchase rate limit exceeded");
+            }
+            return purchase(slotNo, inputCoins, slotDemand);
+        } finally {
+            machinePendingDemand.decrementAndGet();
+        }
+    }
+
+    public int getPendingDemandForSlot(int slotNo) {
+        SlotDemand slotDemand = slotDemandMap.get(slotNo);
+        return (slotDemand != null) ? slotDemand.getPending() : 0;
+    }
+
+    public int getPendingDemand() {
+        return machinePendingDemand.get();
+    }
+
+    /**
+     * Method used to reserve a place in the slot queue
+     * Throws exception if the product is sold out
+     * Throws exception if the outstanding demand already covers the remaining stock
+     * Throws exception if the slot queue is full
+     */
+    private void admitToSlot(int slotNo, SlotDemand slotDemand) {
+        synchronized (slotDemand) {
+            int stock = slotDemand.isInMachine()
+                    ? slotDemand.stockAtEntry : vendingMachine.getItemCountForSlot(slotNo);
+            if (stock <= 0)
+                throw new PurchaseRejectedException("Product Sold Out");
+            if (slotDemand.pending >= stock)
+                throw new PurchaseRejectedException("Slot demand exceeds available stock");
+            if (slotDemand.pending >= slotQueueCapacity)
+                throw new PurchaseRejectedException("Slot queue is full");
+            slotDemand.pending++;
+        }
+    }
+
+    /**
+     * Method used to reserve a place in the machine queue
+     * Throws exception if the machine queue is full
+     */
+    private void admitToMachine() {
+        while (true) {
+            int pending = machinePendingDemand.get();
+            if (pending >= machineQueueCapacity)
+                throw new PurchaseRejectedException("Machine queue is full");
+            if (machinePendingDemand.compareAndSet(pending, pending + 1))
+                return;
+        }
+    }
+
+    /**
+     * Method used to run an admitted purchase on the vending machine
+     * The reservation is released before the next purchase may enter the machine
+     */
+    private String purchase(int slotNo, List<Double> inputCoins, SlotDemand slotDemand) throws Exception {
+        purchaseLock.lock();
+        try {
+            slotDemand.enterMachine(vendingMachine.getItemCountForSlot(slotNo));
+            return vendingMachine.buyProduct(slotNo, inputCoins);
+        } finally {
+            slotDemand.release();
+            purchaseLock.unlock();
+        }
+    }
+
+    /**
+     * SlotDemand class keeps the outstanding purchases of a slot and the stock of the slot
+     * at the time its current purchase entered the vending machine
+     */
+    private static final class SlotDemand {
+
+        private int pending;
+        private int stockAtEntry = -1;
+
+        private synchronized int getPending() {
+            return pending;
+        }
+
+        private synchronized boolean isInMachine() {
+            return stockAtEntry >= 0;
+        }
+
+        private synchronized void enterMachine(int stock) {
+            stockAtEntry = stock;
+        }
+
+        private synchronized void release() {
+            pending--;
+            stockAtEntry = -1;
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package impl;
+
+import handler.CoinNotSupportedException;
+import handler.VendingMachineException;
+import handler.VendingMachineSetupException;
+import service.PurchaseEventListener;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SalesForecaster class keeps streaming sales statistics of a vending machine
+ * and predicts when a slot runs out of stock or a coin type runs out of change
+ * <p>
+ * Demand is modelled as a base rate multiplied by an hour of week seasonal index, computed from
+ * UTC time with Monday 00:00 as hour 0. Every slot has its own seasonal profile, and the coins paid
+ * in and out of every coin type follow the profile of all sales of the machine, since coins only
+ * move on a sale. Change exhaustion is predicted from the net outflow of a coin type, i.e. the coins
+ * paid out as change minus the coins inserted by users. The base rate is the decayed count of sales
+ * divided by the decayed seasonal exposure, i.e. the time elapsed weighted by the seasonal index,
+ * so sales in a busy hour are not counted twice. Counts and exposure decay in whole hours; the
+ * seasonal histograms decay with a half life of four weeks.
+ * <p>
+ * Updates and queries walk the seasonal profile hour by hour, which is bounded by the 168 hours of
+ * a week, and only touch preallocated arrays. All updates and queries are synchronized on the
+ * forecaster, so it can be fed from the purchase thread and queried from any other.
+ *
+ * @author Vigneshkumar
+ */
+public class SalesForecaster implements PurchaseEventListener {
+
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final int HOURS_PER_WEEK = 168;
+    private static final int EPOCH_HOUR_OF_WEEK = 72;
+    private static final double SEASONAL_PRIOR_OCCURRENCES = 0.25;
+    private static final double SEASONAL_DECAY_HOURS = 4 * HOURS_PER_WEEK / Math.log(2);
+    private static final double SEASONAL_RESCALE_LIMIT = 1_000_000.0;
+
+    private final double decayHours;
+    private final SeasonalProfile[] slotProfiles;
+    private final double[] slotSales;
+    private final long[] slotLastSaleTime;
+    private final SeasonalProfile machineProfile;
+    private final double[] coinTypes;
+    private final double[] coinOutflow;
+    private final long[] coinLastOutflowTime;
+    private final double[] coinInflow;
+    private final long[] coinLastInflowTime;
+
+    /**
+     * Constructor which allocates the statistics for all slots and coin types of the vending machine,
+     * starting the observation at the current time
+     *
+     * @param vendingMachine the vending machine whose purchases are recorded
+     * @param halfLifeHours  number of hours after which an observed sale weighs half as much
+     */
+    public SalesForecaster(VendingMachine vendingMachine, double halfLifeHours) {
+        this(vendingMachine, halfLifeHours, System.currentTimeMillis());
+    }
+
+    /**
+     * Constructor which allocates the statistics for all slots and coin types of the vending machine
+     *
+     * @param vendingMachine  the vending machine whose purchases are recorded
+     * @param halfLifeHours   number of hours after which an observed sale weighs half as much
+     * @param startTimeMillis time from which sales are observed in epoch milliseconds
+     */
+    public SalesForecaster(VendingMachine vendingMachine, double halfLifeHours, long startTimeMillis) {
+        if (vendingMachine == null)
+            throw new VendingMachineSetupException("Vending machine not defined");
+        if (halfLifeHours <= 0)
+            throw new VendingMachineSetupException("Half life not defined");
+
+        decayHours = halfLifeHours / Math.log(2);
+        int slotCount = vendingMachine.getSlotCount();
+        slotProfiles = new SeasonalProfile[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slotProfiles[i] = new SeasonalProfile(decayHours, startTimeMillis);
+        }
+        slotSales = new double[slotCount];
+        slotLastSaleTime = new long[slotCount];
+        machineProfile = new SeasonalProfile(decayHours, startTimeMillis);
+
+        List<Double> acceptedCoinTypes = vendingMachine.getAcceptedCoinTypes();
+        coinTypes = new double[acceptedCoinTypes.size()];
+        for (int i = 0; i < acceptedCoinTypes.size(); i++) {
+            coinTypes[i] = acceptedCoinTypes.get(i);
+        }
+        coinOutflow = new double[coinTypes.length];
+        coinLastOutflowTime = new long[coinTypes.length];
+        coinInflow = new double[coinTypes.length];
+        coinLastInflowTime = new long[coinTypes.length];
+    }
+
+    @Override
+    public void onProductDispensed(int slotNo, List<Double> insertedCoins, List<Double> changeCoins) {
+        recordPurchase(slotNo, insertedCoins, changeCoins, System.currentTimeMillis());
+    }
+
+    /**
+     * Method to update the slot and coin statistics with a completed purchase
+     * The slot and all change coins are validated before any statistic is changed.
+     * Inserted coins which are not supported are ejected by the machine and therefore skipped.
+     * Events may arrive out of order; an older event never moves the decay clocks back
+     *
+     * @param slotNo        slot from where the product was dispensed
+     * @param insertedCoins coins inserted by the user
+     * @param changeCoins   coins returned to the user as change
+     * @param timeMillis    time of the purchase in epoch milliseconds
+     */
+    public synchronized void recordPurchase(int slotNo, List<Double> insertedCoins, List<Double> changeCoins,
+                                            long timeMillis) {
+        int slotIndex = getSlotIndex(slotNo);
+        if (changeCoins != null) {
+            for (int i = 0; i < changeCoins.size(); i++) {
+                getCoinIndex(changeCoins.get(i));
+            }
+        }
+
+        slotSales[slotIndex] = addedCount(slotSales[slotIndex], slotLastSaleTime[slotIndex], timeMillis);
+        slotLastSaleTime[slotIndex] = Math.max(slotLastSaleTime[slotIndex], timeMillis);
+        slotProfiles[slotIndex].recordSale(timeMillis);
+        machineProfile.recordSale(timeMillis);
+
+        if (insertedCoins != null) {
+            for (int i = 0; i < insertedCoins.size(); i++) {
+                int coinIndex = findCoinIndex(insertedCoins.get(i));
+                if (coinIndex >= 0) {
+                    coinInflow[coinIndex] = addedCount(coinInflow[coinIndex],
+                            coinLastInflowTime[coinIndex], timeMillis);
+                    coinLastInflowTime[coinIndex] = Math.max(coinLastInflowTime[coinIndex], timeMillis);
+                }
+            }
+        }
+        if (changeCoins != null) {
+            for (int i = 0; i < changeCoins.size(); i++) {
+                int coinIndex = getCoinIndex(changeCoins.get(i));
+                coinOutflow[coinIndex] = addedCount(coinOutflow[coinIndex],
+                        coinLastOutflowTime[coinIndex], timeMillis);
+                coinLastOutflowTime[coinIndex] = Math.max(coinLastOutflowTime[coinIndex], timeMillis);
+            }
+        }
+    }
+
+    /**
+     * Method to get the expected sales per hour for the slot at the given time,
+     * i.e. the base rate multiplied by the seasonal index of the current hour of week
+     */
+    public synchronized double getSalesRatePerHour(int slotNo, long timeMillis) {
+        int slotIndex = getSlotIndex(slotNo);
+        SeasonalProfile profile = slotProfiles[slotIndex];
+        return getSlotBaseRate(slotIndex, timeMillis) * profile.seasonalIndex(hourOfWeek(timeMillis), timeMillis);
+    }
+
+    /**
+     * Method to get the expected number of coins of the coin type paid out as change per hour at the given time
+     */
+    public synchronized double getCoinOutflowRatePerHour(double coinType, long timeMillis) {
+        int coinIndex = getCoinIndex(coinType);
+        return getCoinBaseRate(coinOutflow[coinIndex], coinLastOutflowTime[coinIndex], timeMillis)
+                * machineProfile.seasonalIndex(hourOfWeek(timeMillis), timeMillis);
+    }
+
+    /**
+     * Method to get the expected number of coins of the coin type inserted by users per hour at the given time
+     */
+    public synchronized double getCoinInflowRatePerHour(double coinType, long timeMillis) {
+        int coinIndex = getCoinIndex(coinType);
+        return getCoinBaseRate(coinInflow[coinIndex], coinLastInflowTime[coinIndex], timeMillis)
+                * machineProfile.seasonalIndex(hourOfWeek(timeMillis), timeMillis);
+    }
+
+    /**
+     * Method to predict the number of hours until the slot is sold out
+     *
+     * @return hours until stock out, or positive infinity if no sales are expected
+     */
+    public synchronized double getHoursToStockOut(int slotNo, int itemCount, long timeMillis) {
+        int slotIndex = getSlotIndex(slotNo);
+        return slotProfiles[slotIndex].hoursToConsume(getSlotBaseRate(slotIndex, timeMillis), itemCount, timeMillis);
+    }
+
+    /**
+     * Method to predict the number of hours until the coin type can no longer be given as change
+     * The prediction uses the net outflow, i.e. coins paid out as change less coins inserted by users
+     *
+     * @return hours until change exhaustion, or positive infinity if no net outflow is expected
+     */
+    public synchronized double getHoursToChangeExhaustion(double coinType, int coinCount, long timeMillis) {
+        int coinIndex = getCoinIndex(coinType);
+        double netOutflowRate = getCoinBaseRate(coinOutflow[coinIndex], coinLastOutflowTime[coinIndex], timeMillis)
+                - getCoinBaseRate(coinInflow[coinIndex], coinLastInflowTime[coinIndex], timeMillis);
+        return machineProfile.hoursToConsume(netOutflowRate, coinCount, timeMillis);
+    }
+
+    private double getSlotBaseRate(int slotIndex, long timeMillis) {
+        return slotProfiles[slotIndex].baseRate(
+                decayedCount(slotSales[slotIndex], slotLastSaleTime[slotIndex], timeMillis), timeMillis);
+    }
+
+    private double getCoinBaseRate(double count, long lastTimeMillis, long timeMillis) {
+        return machineProfile.baseRate(decayedCount(count, lastTimeMillis, timeMillis), timeMillis);
+    }
+
+    /**
+     * Method to add one event to a count last updated at the given time
+     * An event older than the last update is added with the weight it has left at that time
+     */
+    private double addedCount(double count, long lastTimeMillis, long timeMillis) {
+        if (timeMillis < lastTimeMillis)
+            return count + Math.exp(-elapsedWholeHours(timeMillis, lastTimeMillis) / decayHours);
+        return decayedCount(count, lastTimeMillis, timeMillis) + 1;
+    }
+
+    private double decayedCount(double count, long lastTimeMillis, long timeMillis) {
+        if (count == 0 || timeMillis <= lastTimeMillis)
+            return count;
+        return count * Math.exp(-elapsedWholeHours(lastTimeMillis, timeMillis) / decayHours);
+    }
+
+    /**
+     * Method to get the number of hour boundaries between the two times
+     * Counts and exposure decay in whole hours, so sales and exposure within the same hour weigh the same
+     */
+    private static long elapsedWholeHours(long fromMillis, long toMillis) {
+        return Math.floorDiv(toMillis, MILLIS_PER_HOUR) - Math.floorDiv(fromMillis, MILLIS_PER_HOUR);
+    }
+
+    private static int hourOfWeek(long timeMillis) {
+        return (int) Math.floorMod(Math.floorDiv(timeMillis, MILLIS_PER_HOUR) + EPOCH_HOUR_OF_WEEK,
+                (long) HOURS_PER_WEEK);
+    }
+
+    private int getSlotIndex(int slotNo) {
+        if (slotNo <= 0 || slotNo > slotProfiles.length)
+            throw new VendingMachineException("Slot not available");
+        return slotNo - 1;
+    }
+
+    private int getCoinIndex(double coinType) {
+        int coinIndex = findCoinIndex(coinType);
+        if (coinIndex < 0)
+            throw new CoinNotSupportedException("Coin Type does not match with the available coin types");
+        return coinIndex;
+    }
+
+    private int findCoinIndex(double coinType) {
+        for (int i = 0; i < coinTypes.length; i++) {
+            if (coinTypes[i] == coinType)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * SeasonalProfile class keeps the decayed hour of week sales histogram and the decayed
+     * seasonal exposure of a sales stream
+     * <p>
+     * Histogram entries are stored relative to a reference time and grow with the time of the sale,
+     * which decays the older entries without touching them. The histogram is rescaled once the growth
+     * factor gets large. As the hour of week about to come was last seen almost a week ago, every entry
+     * is compared as of the end of its last completed occurrence, otherwise the upcoming hours would
+     * always look quieter than they are.
+     * <p>
+     * Each hour of week is rated by its sales per observed occurrence, shrunk towards the average rate
+     * of all hours with the weight of {@code SEASONAL_PRIOR_OCCURRENCES} occurrences. Hours not observed
+     * yet, e.g. during the first week, therefore get an index of 1 instead of looking sold out.
+     */
+    private static final class SeasonalProfile {
+
+        private final double decayHours;
+        private final long startTime;
+        private final double[] hourSales = new double[HOURS_PER_WEEK];
+        private final double[] hourRates = new double[HOURS_PER_WEEK];
+        private final double[] seasonalIndexes = new double[HOURS_PER_WEEK];
+        private long referenceTime;
+        private double exposure;
+        private long lastExposureTime;
+        private long seasonalIndexesTime = Long.MIN_VALUE;
+        private long currentHour = Long.MIN_VALUE;
+        private double currentHourSales;
+
+        private SeasonalProfile(double decayHours, long startTimeMillis) {
+            this.decayHours = decayHours;
+            this.startTime = startTimeMillis;
+            this.referenceTime = startTimeMillis;
+            this.lastExposureTime = startTimeMillis;
+        }
+
+        private void recordSale(long timeMillis) {
+            exposure = exposureAt(timeMillis);
+            lastExposureTime = Math.max(lastExposureTime, timeMillis);
+
+            double weight = growth(timeMillis);
+            hourSales[hourOfWeek(timeMillis)] += weight;
+            long hour = Math.floorDiv(timeMillis, MILLIS_PER_HOUR);
+            if (hour > currentHour) {
+                currentHour = hour;
+                currentHourSales = 0;
+            }
+            if (hour == currentHour)
+                currentHourSales += weight;
+            if (weight > SEASONAL_RESCALE_LIMIT) {
+                for (int hourOfWeek = 0; hourOfWeek < HOURS_PER_WEEK; hourOfWeek++) {
+                    hourSales[hourOfWeek] /= weight;
+                }
+                currentHourSales /= weight;
+                referenceTime = timeMillis;
+            }
+            seasonalIndexesTime = Long.MIN_VALUE;
+        }
+
+        private double growth(long timeMillis) {
+            return Math.exp((double) (timeMillis - referenceTime) / MILLIS_PER_HOUR / SEASONAL_DECAY_HOURS);
+        }
+
+        private double seasonalIndex(int hourOfWeek, long timeMillis) {
+            if (seasonalIndexesTime != timeMillis) {
+                computeSeasonalIndexes(timeMillis);
+                seasonalIndexesTime = timeMillis;
+            }
+            return seasonalIndexes[hourOfWeek];
+        }
+
+        /**
+         * Method to compute the seasonal index of every hour of week at the given time
+         */
+        private void computeSeasonalIndexes(long timeMillis) {
+            double totalSales = 0;
+            double totalOccurrences = 0;
+            for (int hour = 0; hour < HOURS_PER_WEEK; hour++) {
+                totalSales += occurrenceSales(hour, timeMillis);
+                totalOccurrences += occurrences(hour, timeMillis);
+            }
+            if (totalSales <= 0 || totalOccurrences <= 0) {
+                Arrays.fill(seasonalIndexes, 1);
+                return;
+            }
+            double averageRate = totalSales / totalOccurrences;
+            double totalRate = 0;
+            for (int hour = 0; hour < HOURS_PER_WEEK; hour++) {
+                hourRates[hour] = (occurrenceSales(hour, timeMillis) + SEASONAL_PRIOR_OCCURRENCES * averageRate)
+                        / (occurrences(hour, timeMillis) + SEASONAL_PRIOR_OCCURRENCES);
+                totalRate += hourRates[hour];
+            }
+            for (int hour = 0; hour < HOURS_PER_WEEK; hour++) {
+                seasonalIndexes[hour] = hourRates[hour] * HOURS_PER_WEEK / totalRate;
+            }
+        }
+
+        /**
+         * Method to get the sales of the hour of week decayed to the end of its last completed occurrence,
+         * so that a sale in that occurrence weighs about 1. Sales of the occurrence still in progress are left out
+         */
+        private double occurrenceSales(int hourOfWeek, long timeMillis) {
+            double sales = hourSales[hourOfWeek];
+            if (hourOfWeek == hourOfWeek(timeMillis) && currentHour == Math.floorDiv(timeMillis, MILLIS_PER_HOUR))
+                sales -= currentHourSales;
+            return sales * Math.exp(-(double) (occurrenceEnd(hourOfWeek, timeMillis) - referenceTime)
+                    / MILLIS_PER_HOUR / SEASONAL_DECAY_HOURS);
+        }
+
+        /**
+         * Method to get the completed occurrences of the hour of week since the start of the observation,
+         * decayed in the same way as the sales, i.e. the last completed occurrence weighs 1
+         */
+        private double occurrences(int hourOfWeek, long timeMillis) {
+            long firstHour = -Math.floorDiv(-startTime, MILLIS_PER_HOUR);
+            long lastHour = Math.floorDiv(occurrenceEnd(hourOfWeek, timeMillis), MILLIS_PER_HOUR) - 1;
+            if (lastHour < firstHour)
+                return 0;
+            long count = (lastHour - firstHour) / HOURS_PER_WEEK + 1;
+            double weekDecay = Math.exp(-HOURS_PER_WEEK / SEASONAL_DECAY_HOURS);
+            return (1 - Math.pow(weekDecay, count)) / (1 - weekDecay);
+        }
+
+        /**
+         * Method to get the end time of the last completed occurrence of the hour of week
+         */
+        private static long occurrenceEnd(int hourOfWeek, long timeMillis) {
+            long currentHourStart = Math.floorDiv(timeMillis, MILLIS_PER_HOUR) * MILLIS_PER_HOUR;
+            int hoursSinceOccurrence = (hourOfWeek(timeMillis) - hourOfWeek - 1 + HOURS_PER_WEEK) % HOURS_PER_WEEK;
+            return currentHourStart - hoursSinceOccurrence * MILLIS_PER_HOUR;
+        }
+
+        private double exposureAt(long timeMillis) {
+            if (timeMillis <= lastExposureTime)
+                return exposure;
+            double elapsedHours = (double) (timeMillis - lastExposureTime) / MILLIS_PER_HOUR;
+            return exposure * Math.exp(-elapsedWholeHours(lastExposureTime, timeMillis) / decayHours)
+                    + seasonalExposure(timeMillis, elapsedHours);
+        }
+
+        /**
+         * Method to get the seasonal exposure of the given number of hours before the given time,
+         * decayed to that time. Full weeks repeat the same profile and are summed as a geometric series
+         */
+        private double seasonalExposure(long timeMillis, double elapsedHours) {
+            if (elapsedHours <= HOURS_PER_WEEK)
+                return decayedSeasonalTime(timeMillis, elapsedHours);
+            double weeks = Math.floor(elapsedHours / HOURS_PER_WEEK);
+            double weekDecay = Math.exp(-HOURS_PER_WEEK / decayHours);
+            double weeksDecay = Math.exp(-weeks * HOURS_PER_WEEK / decayHours);
+            return decayedSeasonalTime(timeMillis, HOURS_PER_WEEK) * (1 - weeksDecay) / (1 - weekDecay)
+                    + weeksDecay * decayedSeasonalTime(timeMillis, elapsedHours - weeks * HOURS_PER_WEEK);
+        }
+
+        /**
+         * Method to walk the seasonal profile backwards from the given time for at most a week,
+         * summing the seasonal index of every hour weighted by its decay at the given time
+         */
+        private double decayedSeasonalTime(long timeMillis, double hoursBack) {
+            int hourOfWeek = hourOfWeek(timeMillis);
+            double span = (double) Math.floorMod(timeMillis, MILLIS_PER_HOUR) / MILLIS_PER_HOUR;
+            double age = 0;
+            double decayedTime = 0;
+            for (int hoursAgo = 0; age < hoursBack; hoursAgo++) {
+                double end = Math.min(age + span, hoursBack);
+                decayedTime += seasonalIndex(hourOfWeek, timeMillis) * (end - age) * Math.exp(-hoursAgo / decayHours);
+                age = end;
+                hourOfWeek = (hourOfWeek + HOURS_PER_WEEK - 1) % HOURS_PER_WEEK;
+                span = 1;
+            }
+            return decayedTime;
+        }
+
+        /**
+         * Method to get the deseasonalized rate per hour for the decayed count of the sales stream
+         */
+        private double baseRate(double decayedCount, long timeMillis) {
+            double decayedExposure = exposureAt(timeMillis);
+            return (decayedExposure > 0) ? decayedCount / decayedExposure : 0;
+        }
+
+        /**
+         * Method to walk the seasonal profile from the given time until the count is consumed
+         *
+         * @return hours until the count is consumed, or positive infinity if the base rate is 0
+         */
+        private double hoursToConsume(double baseRate, int count, long timeMillis) {
+            if (count <= 0)
+                return 0;
+            if (baseRate <= 0)
+                return Double.POSITIVE_INFINITY;
+
+            double weeklyConsumption = baseRate * HOURS_PER_WEEK;
+            double fullWeeks = Math.floor(count / weeklyConsumption);
+            double remaining = count - fullWeeks * weeklyConsumption;
+            double hours = fullWeeks * HOURS_PER_WEEK;
+
+            int hourOfWeek = hourOfWeek(timeMillis);
+            double span = 1 - (double) Math.floorMod(timeMillis, MILLIS_PER_HOUR) / MILLIS_PER_HOUR;
+            for (int step = 0; step <= HOURS_PER_WEEK; step++) {
+                double hourRate = baseRate * seasonalIndex(hourOfWeek, timeMillis);
+                if (hourRate * span >= remaining)
+                    return hours + remaining / hourRate;
+                remaining -= hourRate * span;
+                hours += span;
+                hourOfWeek = (hourOfWeek + 1) % HOURS_PER_WEEK;
+                span = 1;
+            }
+            return hours;
+        }
+    }
+}
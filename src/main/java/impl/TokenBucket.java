@@ -0,0 +1,55 @@
+package impl;
+
+import handler.VendingMachineSetupException;
+
+/**
+ * TokenBucket class handles the purchase rate limit of a vending machine
+ *
+ * @author Vigneshkumar
+ */
+public class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double availableTokens;
+    private long lastRefillTime;
+
+    /**
+     * Constructor which initialize the bucket with its full burst capacity
+     *
+     * @param capacity        maximum number of purchases admitted in a single burst
+     * @param tokensPerSecond number of purchases the bucket regains every second
+     */
+    public TokenBucket(int capacity, double tokensPerSecond) {
+        if (capacity <= 0)
+            throw new VendingMachineSetupException("Token bucket capacity not defined");
+        if (tokensPerSecond < 0)
+            throw new VendingMachineSetupException("Token refill rate cannot be negative");
+
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / NANOS_PER_SECOND;
+        this.availableTokens = capacity;
+        this.lastRefillTime = System.nanoTime();
+    }
+
+    /**
+     * Method to take a single token from the bucket without waiting
+     *
+     * @return true if a token was available, false if the rate limit is exhausted
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (availableTokens < 1)
+            return false;
+        availableTokens--;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        availableTokens = Math.min(capacity, availableTokens + (now - lastRefillTime) * tokensPerNano);
+        lastRefillTime = now;
+    }
+}
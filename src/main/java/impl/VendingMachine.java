@@ -5,6 +5,7 @@ import handler.VendingMachineException;
 import inventory.Coins;
 import inventory.Slot;
 import service.ConsumerOperationInterface;
+import service.PurchaseEventListener;
 import service.VendingMachineInterface;
 
 import java.util.ArrayList;
@@ -24,6 +25,7 @@ public class VendingMachine
     private final Slot slot;
     private List<Double> invaidCoins;
     private volatile double insertedAmount;
+    private volatile PurchaseEventListener purchaseEventListener;
 
     /**
      * Constructor which initialize the coin and slot objects internally
@@ -89,6 +91,23 @@ public class VendingMachine
         return coins.getCoinsCountForCoinType(coinType);
     }
 
+    /**
+     * Method to register a listener which is notified after every dispensed product
+     *
+     * @param purchaseEventListener listener receiving the slot, the inserted coins and the change coins of the purchase
+     */
+    public void setPurchaseEventListener(PurchaseEventListener purchaseEventListener) {
+        this.purchaseEventListener = purchaseEventListener;
+    }
+
+    public int getSlotCount() {
+        return slot.getSlotCount();
+    }
+
+    public List<Double> getAcceptedCoinTypes() {
+        return coins.getCoinTypes();
+    }
+
     @Override
     public double getProductPrice(int slotNo) throws IllegalStateException {
         return slot.getSlotProductPrice(slotNo);
@@ -111,6 +130,7 @@ public class VendingMachine
                 coins.addCoinsToMachine(inputCoins);
                 changeCoins = dispenseProduct(slotNo);
                 printPurchaseDetails(changeCoins);
+                notifyPurchase(slotNo, inputCoins, changeCoins);
             }
             return new StringBuffer()
                     .append("Product Dispensed Successfully.\n")
@@ -172,6 +192,7 @@ public class VendingMachine
      */
     private boolean checkInputCoins(List<Double> inputCoins) {
         invaidCoins = new ArrayList<>();
+        insertedAmount = 0;
         for (double coin : inputCoins) {
             if (coins.isCoinTypeAvailable(coin)) {
                 insertedAmount += coin;
@@ -182,6 +203,18 @@ public class VendingMachine
         return inputCoins.size() != invaidCoins.size();
     }
 
+    private void notifyPurchase(int slotNo, List<Double> inputCoins, List<Double> changeCoins) {
+        PurchaseEventListener listener = purchaseEventListener;
+        if (listener != null) {
+            try {
+                listener.onProductDispensed(slotNo, inputCoins, changeCoins);
+            } catch (RuntimeException e) {
+                // product and change are already dispensed, a failing listener must not roll back the purchase
+                e.printStackTrace();
+            }
+        }
+    }
+
     private void showPurchasePreview(int slotNo, List<Double> coins) {
         System.out.println(" *******************************");
         System.out.println("        PURCHASE PREVIEW        ");
@@ -119,6 +119,10 @@ public class Coins {
         return changeCoins;
     }
 
+    public List<Double> getCoinTypes() {
+        return new ArrayList<>(coinsCountMap.keySet());
+    }
+
     public List<Map<Double, Integer>> getCoinInventory() {
         return Arrays.asList(coinsCountMap);
     }
@@ -67,4 +67,8 @@ public class Slot {
     public boolean isSlotAvailable(int slotNo) {
         return availableSlots.contains(slotNo);
     }
+
+    public int getSlotCount() {
+        return availableSlots.size();
+    }
 }
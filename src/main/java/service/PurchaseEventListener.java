@@ -0,0 +1,13 @@
+package service;
+
+import java.util.List;
+
+/**
+ * PurchaseEventListener interface has the callback definition for completed purchases
+ *
+ * @author Vigneshkumar
+ */
+public interface PurchaseEventListener {
+
+    void onProductDispensed(int slotNo, List<Double> insertedCoins, List<Double> changeCoins);
+}
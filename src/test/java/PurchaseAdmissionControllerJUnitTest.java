@@ -0,0 +1,326 @@
+import handler.ConsumerOperationException;
+import handler.PurchaseRejectedException;
+import handler.VendingMachineSetupException;
+import impl.PurchaseAdmissionController;
+import impl.TokenBucket;
+import impl.VendingMachine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class PurchaseAdmissionControllerJUnitTest {
+
+    private static final int BLOCKING_SLOT = 2;
+
+    GatedVendingMachine vendingMachine;
+    ExecutorService executor;
+
+    /**
+     * Vending machine which holds every purchase of the blocking slot until it is released,
+     * so that the admission state of the other slots can be observed while the machine is busy.
+     * Purchases of the slot set in blockAfterDispenseSlot are held after the product is dispensed
+     */
+    static class GatedVendingMachine extends VendingMachine {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile int blockAfterDispenseSlot = -1;
+
+        GatedVendingMachine() {
+            super(10, Arrays.asList(0.10, 0.20, 0.50, 1.0));
+        }
+
+        @Override
+        public String buyProduct(int slotNo, List<Double> inputCoins) throws Exception {
+            if (slotNo == BLOCKING_SLOT) {
+                entered.countDown();
+                release.await();
+            }
+            String dispenseMsg = super.buyProduct(slotNo, inputCoins);
+            if (slotNo == blockAfterDispenseSlot) {
+                entered.countDown();
+                release.await();
+            }
+            return dispenseMsg;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        vendingMachine = new GatedVendingMachine();
+        vendingMachine.setPricePerItemForSlot(1, 0.50);
+        vendingMachine.setPricePerItemForSlot(BLOCKING_SLOT, 0.50);
+        vendingMachine.setItemCountForSlot(BLOCKING_SLOT, 1);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        vendingMachine.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Initializing admission controller with 0 slot queue capacity")
+    void testInitializingWithZeroQueueCapacity() {
+        Exception exception = assertThrows(
+                VendingMachineSetupException.class, () ->
+                        new PurchaseAdmissionController(vendingMachine, 0, 10, new TokenBucket(1, 1))
+        );
+        assertEquals("Slot queue capacity not defined", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Buying sold out product is rejected by the admission layer")
+    void testSoldOutProductRejected() {
+        PurchaseAdmissionController admissionController =
+                new PurchaseAdmissionController(vendingMachine, 5, 10, new TokenBucket(10, 0));
+        Exception exception = assertThrows(
+                PurchaseRejectedException.class, () ->
+                        admissionController.buyProduct(1, Arrays.asList(0.50))
+        );
+        assertEquals("Product Sold Out", exception.getMessage());
+        assertEquals(0, admissionController.getPendingDemandForSlot(1));
+    }
+
+    @Test
+    @DisplayName("Buying sold out product without coins reports the missing coins first")
+    void testSoldOutProductWithNoCoinsInserted() {
+        PurchaseAdmissionController admissionController =
+                new PurchaseAdmissionController(vendingMachine, 5, 10, new TokenBucket(10, 0));
+        Exception exception = assertThrows(
+                ConsumerOperationException.class, () ->
+                        admissionController.buyProduct(1, null)
+        );
+        assertEquals("No coins inserted for purchase", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Buying product from invalid slot is rejected without waiting for the machine")
+    void testInvalidSlotRejectedWhileMachineBusy() throws Exception {
+        PurchaseAdmissionController admissionController =
+                new PurchaseAdmissionController(vendingMachine, 5, 10, new TokenBucket(10, 0));
+        Future<String> blockedPurchase = blockMachine(admissionController);
+
+        Exception exception = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(
+                        ConsumerOperationException.class, () ->
+                                admissionController.buyProduct(13, Arrays.asList(0.50))
+                )
+        );
+        assertEquals("Slot not available", exception.getMessage());
+
+        vendingMachine.release.countDown();
+        blockedPurchase.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Buying product after the rate limit is exhausted")
+    void testRateLimitExceeded() throws Exception {
+        vendingMachine.setItemCountForSlot(1, 5);
+        PurchaseAdmissionController admissionController =
+                new PurchaseAdmissionController(vendingMachine, 5, 10, new TokenBucket(1, 0));
+        admissionController.buyProduct(1, Arrays.asList(0.50));
+        Exception exception = assertThrows(
+                PurchaseRejectedException.class, () ->
+                        admissionController.buyProduct(1, Arrays.asList(0.50))
+        );
+        assertEquals("Purchase rate limit exceeded", exception.getMessage());
+        assertEquals(4, vendingMachine.getItemCountForSlot(1));
+        assertEquals(0, admissionController.getPendingDemandForSlot(1));
+        assertEquals(0, admissionController.getPendingDemand());
+    }
+
+    @Test
+    @DisplayName("Buying product when the outstanding demand covers the remaining stock")
+    void testSlotDemandExceedsStock() throws Exception {
+        vendingMachine.setItemCountForSlot(1, 2);
+        PurchaseAdmissionController admissionController =
+                new PurchaseAdmissionController(vendingMachine, 5, 10, new TokenBucket(10, 0));
+        Future<String> blockedPurchase = blockMachine(admissionController);
+        List<Future<String>> queuedPurchases = queuePurchases(admissionController, 1, 2);
+
+        Exception exception = assertThrows(
+                PurchaseRejectedException.class, () ->
+                        admissionController.buyProduct(1, Arrays.asList(0.50))
+        );
+        assertEquals("Slot demand exceeds available stock", exception.getMessage());
+
+        vendingMachine.release.countDown();
+        blockedPurchase.get(5, TimeUnit.SECONDS);
+        for (Future<String> purchase : queuedPurchases) {
+            purchase.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(0, vendingMachine.getItemCountForSlot(1));
+        assertEquals(0, admissionController.getPendingDemandForSlot(1));
+    }
+
+    @Test
+    @DisplayName("Buying product while the previous purchase of the slot is completing")
+    void testAdmittedWhilePreviousPurchaseCompletes() throws Exception {
+        vendingMachine.setItemCountForSlot(1, 2);
+        vendingMachine.blockAfterDispenseSlot = 1;
+        PurchaseAdmissionController admissionController =
+                new PurchaseAdmissionController(vendingMachine, 5, 10, new TokenBucket(10, 0));
+        Future<String> completingPurchase = executor.submit(() ->
+                admissionController.buyProduct(1, Arrays.asList(0.50)));
+        assertTrue(vendingMachine.entered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, vendingMachine.getItemCountForSlot(1));
+
+        Future<String> nextPurchase = executor.submit(() ->
+                admissionController.buyProduct(1, Arrays.asList(0.50)));
+        waitUntil(() -> admissionController.getPendingDemandForSlot(1) == 2);
+        Exception exception = assertThrows(
+                PurchaseRejectedException.class, () ->
+                        admissionController.buyProduct(1, Arrays.asList(0.50))
+        );
+        assertEquals("Slot demand exceeds available stock", exception.getMessage());
+
+        vendingMachine.release.countDown();
+        completingPurchase.get(5, TimeUnit.SECONDS);
+        nextPurchase.get(5, TimeUnit.SECONDS);
+        assertEquals(0, vendingMachine.getItemCountForSlot(1));
+        assertEquals(0, admissionController.getPendingDemandForSlot(1));
+    }
+
+    @Test
+    @DisplayName("Buying product when the slot queue is full")
+    void testSlotQueueFull() throws Exception {
+        vendingMachine.setItemCountForSlot(1, 10);
+        PurchaseAdmissionController admissionController =
+                new PurchaseAdmissionController(vendingMachine, 3, 10, new TokenBucket(10, 0));
+        Future<String> blockedPurchase = blockMachine(admissionController);
+        List<Future<String>> queuedPurchases = queuePurchases(admissionController, 1, 3);
+
+        Exception exception = assertThrows(
+                PurchaseRejectedException.class, () ->
+                        admissionController.buyProduct(1, Arrays.asList(0.50))
+        );
+        assertEquals("Slot queue is full", exception.getMessage());
+
+        vendingMachine.release.countDown();
+        blockedPurchase.get(5, TimeUnit.SECONDS);
+        for (Future<String> purchase : queuedPurchases) {
+            purchase.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(7, vendingMachine.getItemCountForSlot(1));
+        assertEquals(0, admissionController.getPendingDemandForSlot(1));
+    }
+
+    @Test
+    @DisplayName("Buying product when the machine queue is full")
+    void testMachineQueueFull() throws Exception {
+        vendingMachine.setItemCountForSlot(1, 10);
+        PurchaseAdmissionController admissionController =
+                new PurchaseAdmissionController(vendingMachine, 5, 2, new TokenBucket(10, 0));
+        Future<String> blockedPurchase = blockMachine(admissionController);
+        List<Future<String>> queuedPurchases = queuePurchases(admissionController, 1, 1);
+        waitUntil(() -> admissionController.getPendingDemand() == 2);
+
+        Exception exception = assertThrows(
+                PurchaseRejectedException.class, () ->
+                        admissionController.buyProduct(1, Arrays.asList(0.50))
+        );
+        assertEquals("Machine queue is full", exception.getMessage());
+
+        vendingMachine.release.countDown();
+        blockedPurchase.get(5, TimeUnit.SECONDS);
+        queuedPurchases.get(0).get(5, TimeUnit.SECONDS);
+        assertEquals(0, admissionController.getPendingDemandForSlot(1));
+        assertEquals(0, admissionController.getPendingDemand());
+    }
+
+    @Test
+    @DisplayName("Burst of concurrent purchases on a hot slot is cut down to its stock")
+    void testConcurrentBurstOnHotSlot() throws Exception {
+        int stock = 5;
+        int buyers = 40;
+        vendingMachine.setItemCountForSlot(1, stock);
+        PurchaseAdmissionController admissionController =
+                new PurchaseAdmissionController(vendingMachine, buyers, buyers + 1, new TokenBucket(buyers + 1, 0));
+        Future<String> blockedPurchase = blockMachine(admissionController);
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger dispensed = new AtomicInteger();
+        Map<String, AtomicInteger> rejectionReasons = new ConcurrentHashMap<>();
+        List<Future<?>> purchases = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            purchases.add(executor.submit(() -> {
+                start.await();
+                try {
+                    admissionController.buyProduct(1, Arrays.asList(0.50));
+                    dispensed.incrementAndGet();
+                } catch (PurchaseRejectedException e) {
+                    rejectionReasons.computeIfAbsent(e.getMessage(), k -> new AtomicInteger()).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        waitUntil(() -> rejectionReasons.values().stream().mapToInt(AtomicInteger::get).sum() == buyers - stock);
+        assertEquals(stock, admissionController.getPendingDemandForSlot(1));
+
+        vendingMachine.release.countDown();
+        blockedPurchase.get(5, TimeUnit.SECONDS);
+        for (Future<?> purchase : purchases) {
+            purchase.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(stock, dispensed.get());
+        assertEquals(1, rejectionReasons.size());
+        assertEquals(buyers - stock, rejectionReasons.get("Slot demand exceeds available stock").get());
+        assertEquals(0, vendingMachine.getItemCountForSlot(1));
+        assertEquals(0, admissionController.getPendingDemandForSlot(1));
+        assertEquals(0, admissionController.getPendingDemand());
+    }
+
+    /**
+     * Starts a purchase on the blocking slot and waits until it holds the vending machine
+     */
+    private Future<String> blockMachine(PurchaseAdmissionController admissionController) throws Exception {
+        Future<String> blockedPurchase = executor.submit(() ->
+                admissionController.buyProduct(BLOCKING_SLOT, Arrays.asList(0.50)));
+        assertTrue(vendingMachine.entered.await(5, TimeUnit.SECONDS));
+        return blockedPurchase;
+    }
+
+    /**
+     * Starts purchases on the slot and waits until all of them are admitted and queued
+     */
+    private List<Future<String>> queuePurchases(PurchaseAdmissionController admissionController,
+                                                int slotNo, int count) throws Exception {
+        List<Future<String>> purchases = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            purchases.add(executor.submit(() -> admissionController.buyProduct(slotNo, Arrays.asList(0.50))));
+        }
+        waitUntil(() -> admissionController.getPendingDemandForSlot(slotNo) == count);
+        return purchases;
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for admission state");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import handler.CoinNotSupportedException;
+import handler.VendingMachineException;
+import handler.VendingMachineSetupException;
+import impl.SalesForecaster;
+import impl.VendingMachine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class SalesForecasterJUnitTest {
+
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    VendingMachine vendingMachine;
+    SalesForecaster salesForecaster;
+
+    @BeforeEach
+    void setUp() {
+        vendingMachine = new VendingMachine(10, Arrays.asList(0.10, 0.20, 0.50, 1.0));
+        salesForecaster = new SalesForecaster(vendingMachine, 24, 0);
+    }
+
+    @Test
+    @DisplayName("Initializing forecaster without vending machine")
+    void testInitializingWithoutVendingMachine() {
+        Exception exception = assertThrows(
+                VendingMachineSetupException.class, () ->
+                        new SalesForecaster(null, 24, 0)
+        );
+        assertEquals("Vending machine not defined", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Predicting stock out for a slot without sales history")
+    void testStockOutWithoutSales() {
+        assertEquals(Double.POSITIVE_INFINITY, salesForecaster.getHoursToStockOut(1, 5, 0));
+        assertEquals(0, salesForecaster.getHoursToStockOut(1, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Predicting stock out for a slot with steady sales")
+    void testStockOutWithSteadySales() {
+        long hours = 4 * 168;
+        recordSteadySales(0, hours);
+        long now = hours * MILLIS_PER_HOUR;
+        assertEquals(2, salesForecaster.getSalesRatePerHour(1, now), 0.05);
+        assertEquals(5, salesForecaster.getHoursToStockOut(1, 10, now), 0.1);
+        assertEquals(Double.POSITIVE_INFINITY, salesForecaster.getHoursToStockOut(2, 10, now));
+    }
+
+    @Test
+    @DisplayName("Predicting stock out for a slot with steady sales within the first week")
+    void testStockOutWithSteadySalesInFirstWeek() {
+        recordSteadySales(0, 24);
+        assertEquals(2, salesForecaster.getSalesRatePerHour(1, 24 * MILLIS_PER_HOUR), 0.05);
+        assertEquals(5, salesForecaster.getHoursToStockOut(1, 10, 24 * MILLIS_PER_HOUR), 0.1);
+
+        recordSteadySales(24, 100);
+        assertEquals(2, salesForecaster.getSalesRatePerHour(1, 100 * MILLIS_PER_HOUR), 0.05);
+        assertEquals(5, salesForecaster.getHoursToStockOut(1, 10, 100 * MILLIS_PER_HOUR), 0.1);
+        assertEquals(50, salesForecaster.getHoursToStockOut(1, 100, 100 * MILLIS_PER_HOUR), 1);
+    }
+
+    @Test
+    @DisplayName("Recording purchases which arrive out of order")
+    void testOutOfOrderPurchases() {
+        recordSteadySales(0, 100);
+        long now = 100 * MILLIS_PER_HOUR;
+        double rate = salesForecaster.getSalesRatePerHour(1, now);
+
+        salesForecaster.recordPurchase(1, null, Arrays.asList(0.10), now - 2 * MILLIS_PER_HOUR);
+        double rateAfterLateSale = salesForecaster.getSalesRatePerHour(1, now);
+        assertTrue(rateAfterLateSale >= rate && rateAfterLateSale < rate * 1.05,
+                "sales rate after a late sale : " + rateAfterLateSale);
+
+        salesForecaster.recordPurchase(1, null, Arrays.asList(0.10), now - 50 * MILLIS_PER_HOUR);
+        assertEquals(rateAfterLateSale, salesForecaster.getSalesRatePerHour(1, now), rate * 0.05);
+        assertEquals(5, salesForecaster.getHoursToStockOut(1, 10, now), 0.5);
+    }
+
+    @Test
+    @DisplayName("Predicting stock out for a slot which only sells at 09:00")
+    void testStockOutWithHourOfWeekPattern() {
+        int days = 70;
+        for (int day = 0; day < days; day++) {
+            recordMorningSales(day);
+        }
+
+        double beforeMorning = salesForecaster.getHoursToStockOut(1, 8, atHour(days, 8));
+        assertTrue(beforeMorning > 1 && beforeMorning < 2.5, "hours to stock out at 08:00 : " + beforeMorning);
+        double atMorning = salesForecaster.getHoursToStockOut(1, 8, atHour(days, 9));
+        assertTrue(atMorning > 0 && atMorning < 1.5, "hours to stock out at 09:00 : " + atMorning);
+        double untilNextMorning = salesForecaster.getHoursToStockOut(1, 18, atHour(days, 8));
+        assertTrue(untilNextMorning > 25 && untilNextMorning < 26.5,
+                "hours to stock out of two days demand at 08:00 : " + untilNextMorning);
+
+        recordMorningSales(days);
+        double afterMorning = salesForecaster.getHoursToStockOut(1, 8, atHour(days, 10));
+        assertTrue(afterMorning > 23 && afterMorning < 24.5, "hours to stock out at 10:00 : " + afterMorning);
+
+        double morningRate = salesForecaster.getSalesRatePerHour(1, atHour(days + 1, 9));
+        assertTrue(morningRate > 9 && morningRate < 11, "sales rate at 09:00 : " + morningRate);
+        assertTrue(salesForecaster.getSalesRatePerHour(1, atHour(days + 1, 15)) < 0.1);
+    }
+
+    @Test
+    @DisplayName("Predicting change exhaustion with the seasonal profile of the machine")
+    void testChangeExhaustionWithHourOfWeekPattern() {
+        int days = 70;
+        for (int day = 0; day < days; day++) {
+            recordMorningSales(day);
+        }
+
+        double beforeMorning = salesForecaster.getHoursToChangeExhaustion(0.10, 8, atHour(days, 8));
+        assertTrue(beforeMorning > 1 && beforeMorning < 2.5, "hours to change exhaustion at 08:00 : " + beforeMorning);
+        assertEquals(salesForecaster.getHoursToStockOut(1, 8, atHour(days, 8)), beforeMorning, 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, salesForecaster.getHoursToChangeExhaustion(0.50, 10, atHour(days, 8)));
+        assertTrue(salesForecaster.getCoinOutflowRatePerHour(0.10, atHour(days, 15))
+                < salesForecaster.getCoinOutflowRatePerHour(0.10, atHour(days, 9)));
+        assertTrue(salesForecaster.getCoinInflowRatePerHour(0.50, atHour(days, 9)) > 9);
+    }
+
+    @Test
+    @DisplayName("Predicting change exhaustion from the net outflow of a coin type")
+    void testChangeExhaustionWithInsertedCoins() {
+        for (long hour = 0; hour < 100; hour++) {
+            long time = hour * MILLIS_PER_HOUR + MILLIS_PER_HOUR / 2;
+            salesForecaster.recordPurchase(1, Arrays.asList(0.50), Arrays.asList(0.10, 0.10), time);
+            salesForecaster.recordPurchase(2, Arrays.asList(0.10, 0.20), Arrays.asList(0.20), time);
+        }
+        long now = 100 * MILLIS_PER_HOUR;
+        assertEquals(10, salesForecaster.getHoursToChangeExhaustion(0.10, 10, now), 0.2);
+        assertEquals(Double.POSITIVE_INFINITY, salesForecaster.getHoursToChangeExhaustion(0.20, 10, now));
+        assertEquals(Double.POSITIVE_INFINITY, salesForecaster.getHoursToChangeExhaustion(0.50, 10, now));
+    }
+
+    @Test
+    @DisplayName("Recording purchase for invalid slot and unsupported coin type")
+    void testInvalidSlotAndCoinType() {
+        Exception exception = assertThrows(
+                VendingMachineException.class, () ->
+                        salesForecaster.recordPurchase(11, null, null, 0)
+        );
+        assertEquals("Slot not available", exception.getMessage());
+        assertThrows(
+                CoinNotSupportedException.class, () ->
+                        salesForecaster.recordPurchase(1, Arrays.asList(0.50), Arrays.asList(0.10, 2.0), 0)
+        );
+        assertEquals(0, salesForecaster.getSalesRatePerHour(1, MILLIS_PER_HOUR));
+        assertEquals(0, salesForecaster.getCoinOutflowRatePerHour(0.10, MILLIS_PER_HOUR));
+        assertEquals(0, salesForecaster.getCoinInflowRatePerHour(0.50, MILLIS_PER_HOUR));
+    }
+
+    @Test
+    @DisplayName("Feeding forecaster from vending machine purchases")
+    void testPurchaseEventsFromVendingMachine() throws Exception {
+        long start = System.currentTimeMillis() - MILLIS_PER_HOUR;
+        salesForecaster = new SalesForecaster(vendingMachine, 24, start);
+        vendingMachine.setPricePerItemForSlot(1, 0.30);
+        vendingMachine.setItemCountForSlot(1, 2);
+        vendingMachine.setCoinsCountForCoinType(0.10, 10);
+        vendingMachine.setPurchaseEventListener(salesForecaster);
+        vendingMachine.buyProduct(1, Arrays.asList(0.50));
+
+        long now = System.currentTimeMillis() + 1;
+        assertTrue(salesForecaster.getSalesRatePerHour(1, now) > 0);
+        assertTrue(salesForecaster.getCoinOutflowRatePerHour(0.10, now) > 0);
+        assertTrue(salesForecaster.getCoinInflowRatePerHour(0.50, now) > 0);
+    }
+
+    /**
+     * Records two sales of slot 1 in every hour of the given range
+     */
+    private void recordSteadySales(long fromHour, long untilHour) {
+        for (long hour = fromHour; hour < untilHour; hour++) {
+            long time = hour * MILLIS_PER_HOUR + MILLIS_PER_HOUR / 2;
+            salesForecaster.recordPurchase(1, null, null, time);
+            salesForecaster.recordPurchase(1, null, null, time);
+        }
+    }
+
+    /**
+     * Records ten sales of slot 1 at 09:00 of the day, each paid with a 0.50 coin and returning one 0.10 coin as change
+     */
+    private void recordMorningSales(int day) {
+        for (int sale = 0; sale < 10; sale++) {
+            salesForecaster.recordPurchase(1, Arrays.asList(0.50), Arrays.asList(0.10), atHour(day, 9));
+        }
+    }
+
+    private long atHour(int day, int hour) {
+        return day * MILLIS_PER_DAY + hour * MILLIS_PER_HOUR;
+    }
+}